@@ -0,0 +1,22 @@
+package sistemadetestes.suporte;
+
+import java.util.Map;
+
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.remote.Response;
+
+/**
+ * ChromeDriver que registra no {@link ContadorDeComandos} cada comando enviado ao navegador
+ * 
+ * Todos os comandos, inclusive os dos WebElements, passam pelo execute do
+ * driver, então a contagem é exata e não depende dos eventos do
+ * EventFiringWebDriver.
+ */
+public class ChromeDriverContado extends ChromeDriver {
+
+    @Override
+    protected Response execute(String comando, Map<String, ?> parametros) {
+        ContadorDeComandos.incrementar();
+        return super.execute(comando, parametros);
+    }
+}
@@ -0,0 +1,39 @@
+package sistemadetestes.suporte;
+
+/**
+ * Contador, por thread, dos comandos enviados ao navegador
+ * 
+ * É alimentado pelo {@link ChromeDriverContado}, que passa por aqui a cada
+ * comando do protocolo WebDriver (getTitle, isDisplayed, getAttribute,
+ * switchTo, manage, cliques, buscas etc.). Como cada thread tem seu próprio
+ * contador, em execuções paralelas o {@link FeedDeResultadosListener} informa
+ * somente os comandos do teste que está na thread atual.
+ */
+public final class ContadorDeComandos {
+
+    // Comandos executados pela thread atual desde que ela foi criada
+    private static final ThreadLocal<long[]> TOTAL = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    private ContadorDeComandos() {
+    }
+    
+    /**
+     * Registra um comando enviado ao navegador pela thread atual
+     */
+    public static void incrementar() {
+        TOTAL.get()[0]++;
+    }
+    
+    /**
+     * Obtém o total de comandos enviados ao navegador pela thread atual
+     * @return Quantidade de comandos
+     */
+    public static long obterTotal() {
+        return TOTAL.get()[0];
+    }
+}
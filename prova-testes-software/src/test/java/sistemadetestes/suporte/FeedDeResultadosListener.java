@@ -0,0 +1,397 @@
+package sistemadetestes.suporte;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.runner.Description;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * Ouvinte do JUnit que transmite os resultados dos testes enquanto eles executam
+ * 
+ * Cada evento (início, fim, falha, duração, comandos do WebDriver e progresso
+ * com testes/segundo e ETA) vira uma linha JSON no arquivo
+ * target/feed-testes.ndjson. A gravação é feita em lotes por uma thread
+ * separada, sem bloquear as threads de teste.
+ * 
+ * Testes ignorados (@Ignore ou quarentena) contam como concluídos, mas não
+ * entram em testes/segundo. Quando o total de testes não pode ser
+ * determinado, "total" e "etaSegundos" são publicados como null.
+ * 
+ * Propriedades opcionais:
+ * -Dfeed.arquivo=caminho  arquivo NDJSON (padrão: target/feed-testes.ndjson)
+ * -Dfeed.porta=porta      também envia as linhas para um socket em localhost
+ */
+public class FeedDeResultadosListener extends RunListener {
+
+    private static final String ARQUIVO_PADRAO = "target/feed-testes.ndjson";
+    
+    // Marcador que encerra a thread de gravação
+    private static final String FIM = new String("FIM");
+    
+    private final BlockingQueue<String> fila = new LinkedBlockingQueue<String>();
+    
+    private final Map<Description, Long> inicios = new ConcurrentHashMap<Description, Long>();
+    
+    private final Map<Description, Long> comandos = new ConcurrentHashMap<Description, Long>();
+    
+    private final Map<Description, String> situacoes = new ConcurrentHashMap<Description, String>();
+    
+    private final AtomicInteger executados = new AtomicInteger();
+    
+    private final AtomicInteger ignorados = new AtomicInteger();
+    
+    private final AtomicInteger falhas = new AtomicInteger();
+    
+    // Quantidade de métodos de teste da execução, null quando desconhecida
+    private volatile Long total;
+    
+    private volatile long inicioExecucao;
+    
+    private Thread gravador;
+
+    @Override
+    public void testRunStarted(Description description) {
+        total = contarTestes(description);
+        inicioExecucao = System.currentTimeMillis();
+        executados.set(0);
+        ignorados.set(0);
+        falhas.set(0);
+        
+        gravador = new Thread(new Gravador(), "feed-de-resultados");
+        gravador.setDaemon(true);
+        gravador.start();
+        
+        publicar(new Evento("execucao-iniciada").opcional("total", total));
+    }
+    
+    @Override
+    public void testStarted(Description description) {
+        inicios.put(description, System.currentTimeMillis());
+        comandos.put(description, ContadorDeComandos.obterTotal());
+        situacoes.put(description, "passou");
+        publicar(new Evento("teste-iniciado").texto("teste", nome(description)));
+    }
+    
+    @Override
+    public void testFailure(Failure failure) {
+        situacoes.put(failure.getDescription(), "falhou");
+        publicar(new Evento("teste-falhou")
+                .texto("teste", nome(failure.getDescription()))
+                .texto("causa", causa(failure.getException())));
+    }
+    
+    @Override
+    public void testAssumptionFailure(Failure failure) {
+        Description description = failure.getDescription();
+        if (description.getMethodName() != null) {
+            // Ex.: teste em quarentena, ignorado pela RetentativaRule
+            situacoes.put(description, "ignorado");
+            return;
+        }
+        // JUnit 4.12+ avisa assim quando a classe inteira é ignorada (no 4.11 chega pelo testIgnored)
+        ignorarClasse(description);
+    }
+    
+    @Override
+    public void testFinished(Description description) {
+        Long inicio = inicios.remove(description);
+        Long comandosNoInicio = comandos.remove(description);
+        String situacao = situacoes.remove(description);
+        
+        if ("ignorado".equals(situacao)) {
+            ignorados.incrementAndGet();
+        } else {
+            executados.incrementAndGet();
+        }
+        if ("falhou".equals(situacao)) {
+            falhas.incrementAndGet();
+        }
+        
+        long agora = System.currentTimeMillis();
+        publicar(progresso(new Evento("teste-finalizado")
+                .texto("teste", nome(description))
+                .texto("situacao", situacao)
+                .numero("duracaoMs", inicio == null ? 0 : agora - inicio)
+                .numero("comandosWebDriver", comandosNoInicio == null ? 0
+                        : ContadorDeComandos.obterTotal() - comandosNoInicio), agora));
+    }
+    
+    @Override
+    public void testIgnored(Description description) {
+        if (description.getMethodName() == null) {
+            // Classe inteira ignorada (fila de quarentena, skipAfterFailureCount do Surefire)
+            ignorarClasse(description);
+            return;
+        }
+        ignorados.incrementAndGet();
+        publicar(progresso(new Evento("teste-ignorado").texto("teste", nome(description)),
+                System.currentTimeMillis()));
+    }
+    
+    /**
+     * Conta como ignorados todos os métodos de uma classe que não foi executada,
+     * já que eles nunca chegam ao testFinished
+     */
+    private void ignorarClasse(Description classe) {
+        Long metodos = contarTestes(classe);
+        ignorados.addAndGet(metodos == null ? 0 : metodos.intValue());
+        publicar(progresso(new Evento("classe-ignorada").texto("classe", classe.getClassName()),
+                System.currentTimeMillis()));
+    }
+    
+    @Override
+    public void testRunFinished(Result result) throws InterruptedException {
+        publicar(new Evento("execucao-finalizada")
+                .numero("executados", result.getRunCount())
+                .numero("falhas", result.getFailureCount())
+                .numero("ignorados", result.getIgnoreCount())
+                .numero("duracaoMs", result.getRunTime()));
+        
+        // Aguarda a thread de gravação esvaziar a fila antes de a JVM encerrar
+        if (gravador != null) {
+            fila.put(FIM);
+            gravador.join(5000);
+        }
+    }
+    
+    /**
+     * Acrescenta os campos de progresso a um evento que concluiu um teste
+     * Somente testes executados entram em testes/segundo
+     */
+    private Evento progresso(Evento evento, long agora) {
+        int feitos = executados.get();
+        int concluidos = feitos + ignorados.get();
+        double segundos = Math.max(agora - inicioExecucao, 1) / 1000.0;
+        double testesPorSegundo = feitos / segundos;
+        
+        Long eta = null;
+        if (total != null && testesPorSegundo > 0) {
+            eta = Math.round(Math.max(total - concluidos, 0) / testesPorSegundo);
+        }
+        
+        return evento
+                .numero("concluidos", concluidos)
+                .numero("executados", feitos)
+                .numero("ignorados", ignorados.get())
+                .numero("falhas", falhas.get())
+                .opcional("total", total)
+                .decimal("testesPorSegundo", testesPorSegundo)
+                .opcional("etaSegundos", eta);
+    }
+    
+    /**
+     * Conta os métodos de teste da execução
+     * O Surefire informa apenas as classes, sem os métodos, então cada
+     * classe sem filhos é resolvida pelo próprio runner do JUnit
+     * @return Quantidade de métodos, ou null quando não puder ser determinada
+     */
+    static Long contarTestes(Description execucao) {
+        // Só métodos têm nome; uma suíte vazia também responde isTest() == true
+        if (execucao.getMethodName() != null) {
+            return 1L;
+        }
+        if (execucao.getChildren().isEmpty()) {
+            return contarMetodosDaClasse(execucao.getClassName());
+        }
+        long quantidade = 0;
+        for (Description filho : execucao.getChildren()) {
+            Long doFilho = contarTestes(filho);
+            if (doFilho == null) {
+                return null;
+            }
+            quantidade += doFilho;
+        }
+        return quantidade;
+    }
+    
+    private static Long contarMetodosDaClasse(String nomeDaClasse) {
+        try {
+            Class<?> classe = Class.forName(nomeDaClasse, false, FeedDeResultadosListener.class.getClassLoader());
+            return (long) Request.aClass(classe).getRunner().getDescription().testCount();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+    
+    private void publicar(Evento evento) {
+        fila.offer(evento.toString());
+    }
+    
+    private static String nome(Description description) {
+        // Falha no @BeforeClass chega com a descrição da classe, sem método
+        if (description.getMethodName() == null) {
+            return description.getClassName();
+        }
+        return description.getClassName() + "." + description.getMethodName();
+    }
+    
+    private static String causa(Throwable erro) {
+        String mensagem = erro.getMessage();
+        if (mensagem == null) {
+            return erro.getClass().getName();
+        }
+        // Apenas a primeira linha, mensagens do WebDriver costumam ser enormes
+        int quebra = mensagem.indexOf('\n');
+        return erro.getClass().getName() + ": " + (quebra < 0 ? mensagem : mensagem.substring(0, quebra));
+    }
+    
+    /**
+     * Thread que retira os eventos da fila e os grava em lotes
+     */
+    private class Gravador implements Runnable {
+
+        @Override
+        public void run() {
+            File arquivo = new File(System.getProperty("feed.arquivo", ARQUIVO_PADRAO));
+            if (arquivo.getParentFile() != null) {
+                arquivo.getParentFile().mkdirs();
+            }
+            
+            Socket socket = conectar();
+            List<String> lote = new ArrayList<String>();
+            try (OutputStream saida = new FileOutputStream(arquivo, true)) {
+                boolean ativo = true;
+                while (ativo) {
+                    lote.add(fila.take());
+                    fila.drainTo(lote);
+                    
+                    StringBuilder linhas = new StringBuilder();
+                    for (String linha : lote) {
+                        if (linha == FIM) {
+                            ativo = false;
+                        } else {
+                            linhas.append(linha).append('\n');
+                        }
+                    }
+                    lote.clear();
+                    
+                    byte[] bytes = linhas.toString().getBytes(StandardCharsets.UTF_8);
+                    saida.write(bytes);
+                    saida.flush();
+                    socket = enviar(socket, bytes);
+                }
+            } catch (IOException e) {
+                System.err.println("Não foi possível gravar o feed de resultados: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                fechar(socket);
+            }
+        }
+        
+        private Socket conectar() {
+            Integer porta = Integer.getInteger("feed.porta");
+            if (porta == null) {
+                return null;
+            }
+            try {
+                return new Socket("localhost", porta);
+            } catch (IOException e) {
+                System.err.println("Feed de resultados sem socket na porta " + porta + ": " + e.getMessage());
+                return null;
+            }
+        }
+        
+        private Socket enviar(Socket socket, byte[] bytes) {
+            if (socket == null) {
+                return null;
+            }
+            try {
+                OutputStream saida = socket.getOutputStream();
+                saida.write(bytes);
+                saida.flush();
+                return socket;
+            } catch (IOException e) {
+                // Se o leitor do socket sair, o feed continua apenas no arquivo
+                fechar(socket);
+                return null;
+            }
+        }
+        
+        private void fechar(Socket socket) {
+            if (socket == null) {
+                return;
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nada a fazer, o socket já está sendo descartado
+            }
+        }
+    }
+    
+    /**
+     * Monta uma linha JSON simples de um evento do feed
+     */
+    static class Evento {
+
+        private final StringBuilder json = new StringBuilder();
+        
+        Evento(String tipo) {
+            json.append("{\"evento\":\"").append(tipo).append('"');
+            numero("momento", System.currentTimeMillis());
+        }
+        
+        Evento texto(String campo, String valor) {
+            json.append(",\"").append(campo).append("\":");
+            if (valor == null) {
+                json.append("null");
+                return this;
+            }
+            json.append('"');
+            for (char c : valor.toCharArray()) {
+                switch (c) {
+                    case '"': json.append("\\\""); break;
+                    case '\\': json.append("\\\\"); break;
+                    case '\n': json.append("\\n"); break;
+                    case '\r': json.append("\\r"); break;
+                    case '\t': json.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            json.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            json.append(c);
+                        }
+                }
+            }
+            json.append('"');
+            return this;
+        }
+        
+        Evento numero(String campo, long valor) {
+            json.append(",\"").append(campo).append("\":").append(valor);
+            return this;
+        }
+        
+        Evento opcional(String campo, Long valor) {
+            json.append(",\"").append(campo).append("\":").append(valor == null ? "null" : valor.toString());
+            return this;
+        }
+        
+        Evento decimal(String campo, double valor) {
+            json.append(",\"").append(campo).append("\":").append(String.format(Locale.ROOT, "%.3f", valor));
+            return this;
+        }
+        
+        @Override
+        public String toString() {
+            return json.toString() + "}";
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package sistemadetestes.suporte;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.ClassRule;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.internal.AssumptionViolatedException;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runners.model.Statement;
+
+/**
+ * Testes do feed de resultados, sem navegador
+ */
+public class FeedDeResultadosListenerTest {
+
+    @Rule
+    public TemporaryFolder pasta = new TemporaryFolder();
+
+    @After
+    public void limparPropriedades() {
+        System.clearProperty("feed.arquivo");
+    }
+
+    @Test
+    public void deveEscaparAspasBarrasEQuebrasDeLinha() {
+        String json = new FeedDeResultadosListener.Evento("x").texto("causa", "a \"b\" \\ c\nd\re\tf").toString();
+
+        assertTrue(json, json.contains("\"causa\":\"a \\\"b\\\" \\\\ c\\nd\\re\\tf\""));
+    }
+
+    @Test
+    public void deveEscaparCaracteresDeControle() {
+        String json = new FeedDeResultadosListener.Evento("x").texto("causa", "a\u0001b").toString();
+
+        assertTrue(json, json.contains("\"causa\":\"a\\u0001b\""));
+    }
+
+    @Test
+    public void devePublicarNullParaValoresAusentes() {
+        String json = new FeedDeResultadosListener.Evento("x")
+                .texto("causa", null)
+                .opcional("total", null)
+                .toString();
+
+        assertTrue(json, json.startsWith("{\"evento\":\"x\""));
+        assertTrue(json, json.endsWith(",\"causa\":null,\"total\":null}"));
+    }
+
+    @Test
+    public void deveContarOsMetodosDasClassesInformadasPeloSurefire() {
+        // O Surefire informa cada classe como uma suíte vazia, sem os métodos
+        Description execucao = Description.createSuiteDescription("execucao");
+        execucao.addChild(Description.createSuiteDescription(Amostra.class));
+
+        assertEquals(Long.valueOf(4), FeedDeResultadosListener.contarTestes(execucao));
+    }
+
+    @Test
+    public void deveTerTotalDesconhecidoSemClasses() {
+        assertNull(FeedDeResultadosListener.contarTestes(Description.createSuiteDescription("execucao")));
+    }
+
+    @Test
+    public void deveNaoContarIgnoradosNaVazaoEPublicarProgressoEmTodaConclusao() throws Exception {
+        File arquivo = new File(pasta.getRoot(), "feed.ndjson");
+        System.setProperty("feed.arquivo", arquivo.getPath());
+
+        Description execucao = Description.createSuiteDescription("execucao");
+        execucao.addChild(Description.createSuiteDescription(Amostra.class));
+        Description passou = Description.createTestDescription(Amostra.class, "passou");
+        Description falhou = Description.createTestDescription(Amostra.class, "falhou");
+        Description quarentena = Description.createTestDescription(Amostra.class, "quarentena");
+        Description ignorado = Description.createTestDescription(Amostra.class, "ignorado");
+
+        FeedDeResultadosListener feed = new FeedDeResultadosListener();
+        feed.testRunStarted(execucao);
+        feed.testStarted(passou);
+        feed.testFinished(passou);
+        feed.testStarted(falhou);
+        feed.testFailure(new Failure(falhou, new AssertionError("quebrou")));
+        feed.testFinished(falhou);
+        feed.testStarted(quarentena);
+        feed.testAssumptionFailure(new Failure(quarentena, new AssumptionViolatedException("quarentena")));
+        feed.testFinished(quarentena);
+        feed.testIgnored(ignorado);
+        feed.testRunFinished(new Result());
+
+        List<String> linhas = Files.readAllLines(arquivo.toPath(), StandardCharsets.UTF_8);
+        assertTrue(linhas.get(0), linhas.get(0).contains("\"total\":4"));
+
+        String finalQuarentena = linhaDe(linhas, "teste-finalizado", "quarentena");
+        assertTrue(finalQuarentena, finalQuarentena.contains("\"situacao\":\"ignorado\""));
+        assertTrue(finalQuarentena, finalQuarentena.contains("\"concluidos\":3,\"executados\":2,\"ignorados\":1,\"falhas\":1"));
+
+        String eventoIgnorado = linhaDe(linhas, "teste-ignorado", "ignorado");
+        assertTrue(eventoIgnorado, eventoIgnorado.contains("\"concluidos\":4,\"executados\":2,\"ignorados\":2"));
+        assertTrue(eventoIgnorado, eventoIgnorado.contains("\"total\":4"));
+        assertTrue(eventoIgnorado, eventoIgnorado.contains("\"etaSegundos\":0"));
+    }
+
+    @Test
+    public void deveContarComoIgnoradosOsMetodosDeUmaClasseIgnorada() throws Exception {
+        File arquivo = new File(pasta.getRoot(), "feed.ndjson");
+        System.setProperty("feed.arquivo", arquivo.getPath());
+
+        JUnitCore junit = new JUnitCore();
+        junit.addListener(new FeedDeResultadosListener());
+        junit.run(ClasseIgnorada.class);
+
+        List<String> linhas = Files.readAllLines(arquivo.toPath(), StandardCharsets.UTF_8);
+        String classeIgnorada = linhaDoEvento(linhas, "classe-ignorada");
+        assertTrue(classeIgnorada, classeIgnorada.contains("ClasseIgnorada\""));
+        assertTrue(classeIgnorada, classeIgnorada.contains("\"concluidos\":3,\"executados\":0,\"ignorados\":3"));
+        assertTrue(classeIgnorada, classeIgnorada.contains("\"total\":3"));
+        for (String linha : linhas) {
+            assertFalse(linha, linha.contains(".null\""));
+        }
+    }
+
+    private static String linhaDoEvento(List<String> linhas, String evento) {
+        for (String linha : linhas) {
+            if (linha.contains("\"evento\":\"" + evento + "\"")) {
+                return linha;
+            }
+        }
+        throw new AssertionError("Evento " + evento + " não encontrado em " + linhas);
+    }
+
+    private static String linhaDe(List<String> linhas, String evento, String metodo) throws IOException {
+        for (String linha : linhas) {
+            if (linha.contains("\"evento\":\"" + evento + "\"") && linha.contains("Amostra." + metodo + "\"")) {
+                return linha;
+            }
+        }
+        throw new AssertionError("Evento " + evento + " de " + metodo + " não encontrado em " + linhas);
+    }
+
+    /**
+     * Classe inteira ignorada por uma suposição no @ClassRule, como na fila de quarentena
+     */
+    public static class ClasseIgnorada {
+
+        @ClassRule
+        public static TestRule ignorarClasse = new TestRule() {
+            @Override
+            public Statement apply(Statement base, Description description) {
+                return new Statement() {
+                    @Override
+                    public void evaluate() {
+                        Assume.assumeTrue(false);
+                    }
+                };
+            }
+        };
+
+        @Test
+        public void primeiro() {
+        }
+
+        @Test
+        public void segundo() {
+        }
+
+        @Test
+        public void terceiro() {
+        }
+    }
+
+    /**
+     * Classe de exemplo usada apenas para contar seus métodos de teste
+     */
+    public static class Amostra {
+
+        @Test
+        public void passou() {
+        }
+
+        @Test
+        public void falhou() {
+        }
+
+        @Test
+        public void quarentena() {
+            Assume.assumeTrue(false);
+        }
+
+        @Ignore
+        @Test
+        public void ignorado() {
+        }
+    }
+}
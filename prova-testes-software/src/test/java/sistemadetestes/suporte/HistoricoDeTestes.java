@@ -0,0 +1,126 @@
+package sistemadetestes.suporte;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.Properties;
+
+/**
+ * Histórico local de testes instáveis (flaky)
+ *
+ * Cada vez que um teste falha e passa na retentativa ele é registrado como
+ * instável neste arquivo. Quando um teste acumula instabilidades suficientes
+ * ele passa a ser considerado em quarentena e sai da execução principal.
+ * Cada aprovação na primeira tentativa reduz a contagem em um, então a
+ * contagem reflete as instabilidades recentes e um teste em quarentena
+ * volta para a execução principal ao passar de forma limpa.
+ *
+ * O arquivo é travado (FileLock) durante a leitura e a gravação, então
+ * pode ser compartilhado por vários forks do Surefire (forkCount > 1).
+ */
+public final class HistoricoDeTestes {
+
+    // Arquivo padrão do histórico (fora do target para sobreviver ao "mvn clean")
+    private static final String ARQUIVO_PADRAO = ".historico-testes.properties";
+
+    // Quantidade padrão de instabilidades para o teste entrar em quarentena
+    private static final int LIMITE_PADRAO = 3;
+
+    private HistoricoDeTestes() {
+    }
+
+    /**
+     * Registra que o teste passou somente após uma ou mais retentativas
+     * @param teste Identificador do teste (Classe.metodo)
+     */
+    public static synchronized void registrarInstabilidade(String teste) {
+        atualizar(teste, 1);
+    }
+
+    /**
+     * Registra que o teste passou na primeira tentativa, reduzindo suas instabilidades
+     * @param teste Identificador do teste (Classe.metodo)
+     */
+    public static synchronized void registrarAprovacao(String teste) {
+        // Caso mais comum (teste sem histórico): evita travar e regravar o arquivo a cada teste
+        if (obterInstabilidades(carregar(), teste) == 0) {
+            return;
+        }
+        atualizar(teste, -1);
+    }
+
+    /**
+     * Verifica se o teste acumulou instabilidades suficientes para ficar em quarentena
+     * @param teste Identificador do teste (Classe.metodo)
+     * @return true se o teste estiver em quarentena, false caso contrário
+     */
+    public static synchronized boolean estaEmQuarentena(String teste) {
+        return obterInstabilidades(carregar(), teste) >= Integer.getInteger("historico.limiteQuarentena", LIMITE_PADRAO);
+    }
+
+    private static File arquivo() {
+        return new File(System.getProperty("historico.arquivo", ARQUIVO_PADRAO));
+    }
+
+    private static int obterInstabilidades(Properties historico, String teste) {
+        try {
+            return Integer.parseInt(historico.getProperty(teste, "0").trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @SuppressWarnings("try")
+    private static Properties carregar() {
+        Properties historico = new Properties();
+        File arquivo = arquivo();
+        if (!arquivo.isFile()) {
+            return historico;
+        }
+        // Trava compartilhada: vários leitores, nenhum fork gravando ao mesmo tempo
+        try (RandomAccessFile acesso = new RandomAccessFile(arquivo, "r");
+                FileLock trava = acesso.getChannel().lock(0, Long.MAX_VALUE, true)) {
+            ler(acesso.getChannel(), historico);
+        } catch (IOException e) {
+            // Histórico ilegível não deve derrubar a execução dos testes
+            System.err.println("Não foi possível ler o histórico de testes: " + e.getMessage());
+        }
+        return historico;
+    }
+
+    @SuppressWarnings("try")
+    private static void atualizar(String teste, int variacao) {
+        // Trava exclusiva durante todo o ler-alterar-gravar para não perder atualizações de outros forks
+        try (RandomAccessFile acesso = new RandomAccessFile(arquivo(), "rw");
+                FileLock trava = acesso.getChannel().lock()) {
+            FileChannel canal = acesso.getChannel();
+            Properties historico = new Properties();
+            ler(canal, historico);
+
+            int instabilidades = Math.max(obterInstabilidades(historico, teste) + variacao, 0);
+            if (instabilidades == 0) {
+                historico.remove(teste);
+            } else {
+                historico.setProperty(teste, String.valueOf(instabilidades));
+            }
+
+            ByteArrayOutputStream conteudo = new ByteArrayOutputStream();
+            historico.store(conteudo, "Quantidade de vezes que cada teste passou somente na retentativa");
+            canal.truncate(0);
+            canal.write(ByteBuffer.wrap(conteudo.toByteArray()), 0);
+        } catch (IOException e) {
+            System.err.println("Não foi possível gravar o histórico de testes: " + e.getMessage());
+        }
+    }
+
+    private static void ler(FileChannel canal, Properties historico) throws IOException {
+        // O stream não é fechado aqui: fecharia o canal que ainda segura a trava
+        canal.position(0);
+        historico.load(Channels.newInputStream(canal));
+    }
+}
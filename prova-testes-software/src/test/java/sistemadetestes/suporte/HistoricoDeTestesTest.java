@@ -0,0 +1,116 @@
+package sistemadetestes.suporte;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Testes do histórico de instabilidades, sem navegador
+ */
+public class HistoricoDeTestesTest {
+
+    private static final String TESTE = "pacote.Classe.metodo";
+
+    @Rule
+    public TemporaryFolder pasta = new TemporaryFolder();
+
+    private File arquivo;
+
+    @Before
+    public void prepararHistorico() {
+        arquivo = new File(pasta.getRoot(), "historico.properties");
+        System.setProperty("historico.arquivo", arquivo.getPath());
+        System.clearProperty("historico.limiteQuarentena");
+    }
+
+    @After
+    public void limparPropriedades() {
+        System.clearProperty("historico.arquivo");
+        System.clearProperty("historico.limiteQuarentena");
+    }
+
+    @Test
+    public void deveEntrarEmQuarentenaAoAtingirOLimite() {
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        assertFalse(HistoricoDeTestes.estaEmQuarentena(TESTE));
+
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        assertTrue(HistoricoDeTestes.estaEmQuarentena(TESTE));
+    }
+
+    @Test
+    public void deveRespeitarOLimiteInformado() {
+        System.setProperty("historico.limiteQuarentena", "1");
+
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+
+        assertTrue(HistoricoDeTestes.estaEmQuarentena(TESTE));
+    }
+
+    @Test
+    public void deveSairDaQuarentenaAposAprovacao() throws IOException {
+        System.setProperty("historico.limiteQuarentena", "2");
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+
+        HistoricoDeTestes.registrarAprovacao(TESTE);
+
+        assertFalse(HistoricoDeTestes.estaEmQuarentena(TESTE));
+        assertEquals("1", ler().getProperty(TESTE));
+    }
+
+    @Test
+    public void deveRemoverOTesteQuandoAContagemZerar() throws IOException {
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+
+        HistoricoDeTestes.registrarAprovacao(TESTE);
+        HistoricoDeTestes.registrarAprovacao(TESTE);
+
+        assertNull(ler().getProperty(TESTE));
+    }
+
+    @Test
+    public void deveConsiderarZeroQuandoOValorEstiverCorrompido() throws IOException {
+        System.setProperty("historico.limiteQuarentena", "1");
+        Properties corrompido = new Properties();
+        corrompido.setProperty(TESTE, "abc");
+        try (OutputStream saida = new FileOutputStream(arquivo)) {
+            corrompido.store(saida, null);
+        }
+
+        assertFalse(HistoricoDeTestes.estaEmQuarentena(TESTE));
+
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        assertEquals("1", ler().getProperty(TESTE));
+    }
+
+    @Test
+    public void naoDeveEstarEmQuarentenaSemArquivo() {
+        assertFalse(HistoricoDeTestes.estaEmQuarentena(TESTE));
+        assertFalse(arquivo.exists());
+    }
+
+    private Properties ler() throws IOException {
+        Properties historico = new Properties();
+        try (InputStream entrada = new FileInputStream(arquivo)) {
+            historico.load(entrada);
+        }
+        return historico;
+    }
+}
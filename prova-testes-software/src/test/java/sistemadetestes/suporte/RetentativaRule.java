@@ -0,0 +1,158 @@
+package sistemadetestes.suporte;
+
+import org.junit.Assume;
+import org.junit.internal.AssumptionViolatedException;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Regra do JUnit que executa novamente apenas o método que falhou,
+ * reaproveitando o navegador e o login já feitos na classe de teste
+ *
+ * Antes de cada retentativa é executada uma restauração barata do estado
+ * (ex.: refazer o login se a sessão caiu). Se a restauração falhar, a falha
+ * é anexada à do teste e o método é executado mesmo assim, sem gastar a
+ * retentativa. O teste que passa somente na retentativa é registrado como
+ * instável no {@link HistoricoDeTestes}, e cada aprovação na primeira
+ * tentativa reduz essa contagem, então a quarentena reflete as
+ * instabilidades recentes e não o total de toda a vida do teste.
+ * Erros graves da JVM (Error que não seja AssertionError) não são repetidos.
+ *
+ * Testes em quarentena são ignorados na execução principal e executados
+ * apenas quando a propriedade "quarentena" for informada:
+ * mvn test -Dquarentena=true
+ * Nessa fila a instabilidade não é registrada de novo.
+ */
+public class RetentativaRule implements TestRule {
+
+    private final int tentativas;
+
+    private final Runnable restauracao;
+
+    /**
+     * Construtor da regra de retentativa
+     * @param tentativas Quantidade máxima de execuções do método (incluindo a primeira)
+     * @param restauracao Ação que restaura o estado do navegador antes de cada retentativa
+     */
+    public RetentativaRule(int tentativas, Runnable restauracao) {
+        if (tentativas < 1) {
+            throw new IllegalArgumentException("A quantidade de tentativas deve ser maior que zero");
+        }
+        this.tentativas = tentativas;
+        this.restauracao = restauracao;
+    }
+
+    /**
+     * Regra de classe (@ClassRule) que ignora a classe inteira, antes do
+     * @BeforeClass abrir o navegador, quando nenhum de seus métodos pertence
+     * à fila atual (principal ou quarentena)
+     * @return Regra de classe da fila de quarentena
+     */
+    public static TestRule filaDeQuarentena() {
+        return new TestRule() {
+            @Override
+            public Statement apply(final Statement base, final Description description) {
+                return new Statement() {
+                    @Override
+                    public void evaluate() throws Throwable {
+                        int emQuarentena = 0;
+                        for (Description metodo : description.getChildren()) {
+                            if (HistoricoDeTestes.estaEmQuarentena(identificar(metodo))) {
+                                emQuarentena++;
+                            }
+                        }
+                        int metodos = description.getChildren().size();
+                        if (estaNaFilaDeQuarentena()) {
+                            Assume.assumeTrue("Classe sem testes em quarentena", emQuarentena > 0);
+                        } else {
+                            Assume.assumeTrue("Todos os testes da classe estão em quarentena",
+                                    metodos == 0 || emQuarentena < metodos);
+                        }
+                        base.evaluate();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        final String teste = identificar(description);
+
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                boolean filaQuarentena = estaNaFilaDeQuarentena();
+                boolean emQuarentena = HistoricoDeTestes.estaEmQuarentena(teste);
+                Assume.assumeTrue("Teste em quarentena, executado apenas com -Dquarentena=true",
+                        !emQuarentena || filaQuarentena);
+                Assume.assumeTrue("Teste fora da quarentena, ignorado na fila de quarentena",
+                        emQuarentena || !filaQuarentena);
+
+                Throwable primeiraFalha = null;
+                for (int tentativa = 1; tentativa <= tentativas; tentativa++) {
+                    if (tentativa > 1) {
+                        restaurar(primeiraFalha);
+                    }
+                    try {
+                        base.evaluate();
+                        if (primeiraFalha == null) {
+                            HistoricoDeTestes.registrarAprovacao(teste);
+                        } else if (!filaQuarentena) {
+                            HistoricoDeTestes.registrarInstabilidade(teste);
+                            System.err.println(teste + " passou na tentativa " + tentativa
+                                    + " e foi registrado como instável: " + primeiraFalha);
+                        }
+                        return;
+                    } catch (AssumptionViolatedException e) {
+                        // Teste ignorado não é falha, não deve ser repetido
+                        throw e;
+                    } catch (AssertionError e) {
+                        primeiraFalha = acumular(primeiraFalha, e);
+                    } catch (Error e) {
+                        // OutOfMemoryError e afins não são instabilidade do navegador
+                        if (primeiraFalha != null) {
+                            e.addSuppressed(primeiraFalha);
+                        }
+                        throw e;
+                    } catch (Throwable e) {
+                        primeiraFalha = acumular(primeiraFalha, e);
+                    }
+                }
+                throw primeiraFalha;
+            }
+        };
+    }
+
+    /**
+     * Executa a restauração fora da tentativa: se ela falhar, a falha é
+     * anexada à do teste e o método roda mesmo assim
+     */
+    private void restaurar(Throwable primeiraFalha) {
+        try {
+            restauracao.run();
+        } catch (AssertionError | RuntimeException e) {
+            System.err.println("Falha ao restaurar o estado antes da retentativa: " + e);
+            primeiraFalha.addSuppressed(e);
+        }
+    }
+
+    private static Throwable acumular(Throwable primeiraFalha, Throwable falha) {
+        if (primeiraFalha == null) {
+            return falha;
+        }
+        if (primeiraFalha != falha) {
+            primeiraFalha.addSuppressed(falha);
+        }
+        return primeiraFalha;
+    }
+
+    private static boolean estaNaFilaDeQuarentena() {
+        return Boolean.getBoolean("quarentena");
+    }
+
+    private static String identificar(Description description) {
+        return description.getClassName() + "." + description.getMethodName();
+    }
+}
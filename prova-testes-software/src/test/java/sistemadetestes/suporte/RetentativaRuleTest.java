@@ -0,0 +1,280 @@
+package sistemadetestes.suporte;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.internal.AssumptionViolatedException;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Testes da regra de retentativa e da fila de quarentena, sem navegador
+ */
+public class RetentativaRuleTest {
+
+    private static final Description METODO = Description.createTestDescription(RetentativaRuleTest.class, "metodo");
+
+    private static final String TESTE = RetentativaRuleTest.class.getName() + ".metodo";
+
+    @Rule
+    public TemporaryFolder pasta = new TemporaryFolder();
+
+    private int restauracoes;
+
+    private final Runnable restauracao = new Runnable() {
+        @Override
+        public void run() {
+            restauracoes++;
+        }
+    };
+
+    @Before
+    public void prepararHistorico() {
+        System.setProperty("historico.arquivo", new File(pasta.getRoot(), "historico.properties").getPath());
+        System.setProperty("historico.limiteQuarentena", "1");
+        System.clearProperty("quarentena");
+    }
+
+    @After
+    public void limparPropriedades() {
+        System.clearProperty("historico.arquivo");
+        System.clearProperty("historico.limiteQuarentena");
+        System.clearProperty("quarentena");
+    }
+
+    @Test
+    public void deveExecutarUmaVezQuandoPassar() throws Throwable {
+        StatementFalso corpo = new StatementFalso();
+
+        new RetentativaRule(2, restauracao).apply(corpo, METODO).evaluate();
+
+        assertEquals(1, corpo.execucoes);
+        assertEquals(0, restauracoes);
+        assertFalse(HistoricoDeTestes.estaEmQuarentena(TESTE));
+    }
+
+    @Test
+    public void deveRestaurarERegistrarInstabilidadeQuandoPassarNaRetentativa() throws Throwable {
+        StatementFalso corpo = new StatementFalso(new AssertionError("falhou"));
+
+        new RetentativaRule(2, restauracao).apply(corpo, METODO).evaluate();
+
+        assertEquals(2, corpo.execucoes);
+        assertEquals(1, restauracoes);
+        assertTrue(HistoricoDeTestes.estaEmQuarentena(TESTE));
+    }
+
+    @Test
+    public void deveLancarAPrimeiraFalhaComAsDemaisSuprimidas() throws Throwable {
+        AssertionError primeira = new AssertionError("primeira");
+        AssertionError segunda = new AssertionError("segunda");
+        AssertionError terceira = new AssertionError("terceira");
+        StatementFalso corpo = new StatementFalso(primeira, segunda, terceira);
+
+        try {
+            new RetentativaRule(3, restauracao).apply(corpo, METODO).evaluate();
+            fail("A falha deveria ser propagada");
+        } catch (AssertionError e) {
+            assertSame(primeira, e);
+            assertEquals(2, e.getSuppressed().length);
+            assertSame(segunda, e.getSuppressed()[0]);
+            assertSame(terceira, e.getSuppressed()[1]);
+        }
+        assertEquals(3, corpo.execucoes);
+        assertEquals(2, restauracoes);
+        assertFalse(HistoricoDeTestes.estaEmQuarentena(TESTE));
+    }
+
+    @Test
+    public void naoDeveRepetirErroGraveDaJvm() throws Throwable {
+        OutOfMemoryError erro = new OutOfMemoryError();
+        StatementFalso corpo = new StatementFalso(erro);
+
+        try {
+            new RetentativaRule(2, restauracao).apply(corpo, METODO).evaluate();
+            fail("O erro deveria ser propagado");
+        } catch (OutOfMemoryError e) {
+            assertSame(erro, e);
+        }
+        assertEquals(1, corpo.execucoes);
+    }
+
+    @Test
+    public void naoDeveRepetirTesteIgnoradoPorSuposicao() throws Throwable {
+        StatementFalso corpo = new StatementFalso(new AssumptionViolatedException("ignorado"));
+
+        try {
+            new RetentativaRule(2, restauracao).apply(corpo, METODO).evaluate();
+            fail("A suposição deveria ser propagada");
+        } catch (AssumptionViolatedException e) {
+            // esperado
+        }
+        assertEquals(1, corpo.execucoes);
+    }
+
+    @Test
+    public void deveIgnorarTesteEmQuarentenaNaFilaPrincipal() throws Throwable {
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        StatementFalso corpo = new StatementFalso();
+
+        try {
+            new RetentativaRule(2, restauracao).apply(corpo, METODO).evaluate();
+            fail("O teste em quarentena deveria ser ignorado");
+        } catch (AssumptionViolatedException e) {
+            // esperado
+        }
+        assertEquals(0, corpo.execucoes);
+    }
+
+    @Test
+    public void deveIgnorarTesteForaDaQuarentenaNaFilaDeQuarentena() throws Throwable {
+        System.setProperty("quarentena", "true");
+        StatementFalso corpo = new StatementFalso();
+
+        try {
+            new RetentativaRule(2, restauracao).apply(corpo, METODO).evaluate();
+            fail("O teste fora da quarentena deveria ser ignorado");
+        } catch (AssumptionViolatedException e) {
+            // esperado
+        }
+        assertEquals(0, corpo.execucoes);
+    }
+
+    @Test
+    public void naoDeveRegistrarInstabilidadeNaFilaDeQuarentena() throws Throwable {
+        System.setProperty("historico.limiteQuarentena", "2");
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        System.setProperty("quarentena", "true");
+
+        new RetentativaRule(2, restauracao).apply(new StatementFalso(new AssertionError()), METODO).evaluate();
+
+        System.setProperty("historico.limiteQuarentena", "3");
+        assertFalse(HistoricoDeTestes.estaEmQuarentena(TESTE));
+    }
+
+    @Test
+    public void deveReduzirInstabilidadesAoPassarNaFilaDeQuarentena() throws Throwable {
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        System.setProperty("quarentena", "true");
+
+        new RetentativaRule(2, restauracao).apply(new StatementFalso(), METODO).evaluate();
+
+        assertFalse(HistoricoDeTestes.estaEmQuarentena(TESTE));
+    }
+
+    @Test
+    public void deveReduzirInstabilidadesAoPassarNaFilaPrincipal() throws Throwable {
+        System.setProperty("historico.limiteQuarentena", "3");
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+
+        new RetentativaRule(2, restauracao).apply(new StatementFalso(), METODO).evaluate();
+
+        System.setProperty("historico.limiteQuarentena", "2");
+        assertFalse(HistoricoDeTestes.estaEmQuarentena(TESTE));
+        System.setProperty("historico.limiteQuarentena", "1");
+        assertTrue(HistoricoDeTestes.estaEmQuarentena(TESTE));
+    }
+
+    @Test
+    public void deveExecutarOMetodoMesmoQuandoARestauracaoFalhar() throws Throwable {
+        final RuntimeException falhaNaRestauracao = new RuntimeException("chrome instável");
+        Runnable restauracaoComFalha = new Runnable() {
+            @Override
+            public void run() {
+                throw falhaNaRestauracao;
+            }
+        };
+        AssertionError primeira = new AssertionError("primeira");
+        AssertionError segunda = new AssertionError("segunda");
+        StatementFalso corpo = new StatementFalso(primeira, segunda);
+
+        try {
+            new RetentativaRule(2, restauracaoComFalha).apply(corpo, METODO).evaluate();
+            fail("A falha deveria ser propagada");
+        } catch (AssertionError e) {
+            assertSame(primeira, e);
+            assertSame(falhaNaRestauracao, e.getSuppressed()[0]);
+            assertSame(segunda, e.getSuppressed()[1]);
+        }
+        assertEquals(2, corpo.execucoes);
+    }
+
+    @Test
+    public void deveIgnorarClasseSemTestesEmQuarentenaNaFilaDeQuarentena() throws Throwable {
+        System.setProperty("quarentena", "true");
+        StatementFalso corpo = new StatementFalso();
+
+        try {
+            RetentativaRule.filaDeQuarentena().apply(corpo, classe()).evaluate();
+            fail("A classe deveria ser ignorada");
+        } catch (AssumptionViolatedException e) {
+            // esperado
+        }
+        assertEquals(0, corpo.execucoes);
+    }
+
+    @Test
+    public void deveExecutarClasseComTesteEmQuarentenaNaFilaDeQuarentena() throws Throwable {
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        System.setProperty("quarentena", "true");
+        StatementFalso corpo = new StatementFalso();
+
+        RetentativaRule.filaDeQuarentena().apply(corpo, classe()).evaluate();
+
+        assertEquals(1, corpo.execucoes);
+    }
+
+    @Test
+    public void deveIgnorarClasseComTodosOsTestesEmQuarentenaNaFilaPrincipal() throws Throwable {
+        HistoricoDeTestes.registrarInstabilidade(TESTE);
+        StatementFalso corpo = new StatementFalso();
+
+        try {
+            RetentativaRule.filaDeQuarentena().apply(corpo, classe()).evaluate();
+            fail("A classe deveria ser ignorada");
+        } catch (AssumptionViolatedException e) {
+            // esperado
+        }
+        assertEquals(0, corpo.execucoes);
+    }
+
+    private static Description classe() {
+        Description classe = Description.createSuiteDescription(RetentativaRuleTest.class);
+        classe.addChild(METODO);
+        return classe;
+    }
+
+    /**
+     * Statement que lança as falhas informadas, uma por execução, e depois passa
+     */
+    private static class StatementFalso extends Statement {
+
+        private final Throwable[] falhas;
+
+        private int execucoes;
+
+        StatementFalso(Throwable... falhas) {
+            this.falhas = falhas;
+        }
+
+        @Override
+        public void evaluate() throws Throwable {
+            execucoes++;
+            if (execucoes <= falhas.length) {
+                throw falhas[execucoes - 1];
+            }
+        }
+    }
+}
@@ -2,25 +2,51 @@ package sistemadetestes.test;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.rules.TestRule;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
+
+import sistemadetestes.suporte.ChromeDriverContado;
+import sistemadetestes.suporte.RetentativaRule;
 
 public abstract class BaseTest{
 	
 	protected static WebDriver driver;
 	
-	private static final String URL_BASE = "file:///C:/Users/parll/Desktop/Projetos/prova-testes-software/prova-testes-software/sistema/login.html";
+	protected static final String URL_BASE = "file:///C:/Users/parll/Desktop/Projetos/prova-testes-software/prova-testes-software/sistema/login.html";
 	
 	private static final String PATH_DRIVE = "src/test/resources/chromedriver.exe";
 	
+	/**Ignora a classe inteira (sem abrir o navegador) quando nenhum teste dela pertence à fila atual*/
+	@ClassRule
+	public static TestRule filaDeQuarentena = RetentativaRule.filaDeQuarentena();
+	
+	/**Reexecuta apenas o método que falhou, no mesmo navegador, após restaurarEstado()*/
+	@Rule
+	public RetentativaRule retentativa = new RetentativaRule(2, new Runnable() {
+		@Override
+		public void run() {
+			restaurarEstado();
+		}
+	});
+	
 	@BeforeClass
 	public static void iniciar() {
 		System.setProperty("webdriver.chrome.driver", PATH_DRIVE);
-		driver = new ChromeDriver();
+		//contador de comandos usado pelo feed de resultados (FeedDeResultadosListener)
+		driver = new ChromeDriverContado();
 		driver.manage().window().maximize();
 		driver.get(URL_BASE);
 	}
 	
+	/**
+	 * Restauração barata executada antes de uma retentativa
+	 * O @Before da classe roda de novo em seguida, então aqui basta o que ele não faz
+	 * */
+	protected void restaurarEstado() {
+	}
+	
 	@AfterClass
 	public static void finalizar() {
 		driver.quit();
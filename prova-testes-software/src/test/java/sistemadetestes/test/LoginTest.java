@@ -19,6 +19,15 @@ public class LoginTest extends BaseTest{
 		loginPage = new LoginPO(driver);
 	}
 	
+	/**
+	 * Antes de uma retentativa volta para a tela de login
+	 * (ex.: TC007 pode falhar depois de já ter entrado na página de produtos)
+	 * */
+	@Override
+	protected void restaurarEstado() {
+		driver.get(URL_BASE);
+	}
+	
 	@Test
 	public void TC001_naoDeveLogarNoSistemaComEmailESenhaVazios() {
 		//loginPage.inputEmail.sendKeys("");